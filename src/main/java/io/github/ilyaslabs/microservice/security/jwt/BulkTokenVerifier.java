@@ -0,0 +1,413 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Verifies large batches of bearer tokens, e.g. tokens captured in access logs, against
+ * a set of current and rotated RSA public keys.
+ * Tokens are streamed from the input and verified in parallel with a bounded number of tokens
+ * in flight. Repeated tokens are verified only once and only counted afterwards.
+ * <p>
+ * To keep memory bounded, deduplication remembers the fingerprints of the most recently seen
+ * distinct tokens only, up to {@code maxTrackedTokens} (about 100 bytes each). A token repeated after
+ * it was forgotten is verified and reported again; raise the limit to trade memory for exactness.
+ * <p>
+ * Can also be run from the command line:
+ * <pre>
+ * java -cp ... io.github.ilyaslabs.microservice.security.jwt.BulkTokenVerifier tokens.log publickey.pem [rotated.pem ...]
+ * </pre>
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Slf4j
+public class BulkTokenVerifier {
+
+    /**
+     * Outcome of verifying a single token
+     */
+    public enum Outcome {
+        VALID,
+        EXPIRED,
+        BAD_SIGNATURE,
+        UNKNOWN_KEY,
+        MALFORMED
+    }
+
+    /**
+     * Verification result of a distinct token.
+     *
+     * @param line        the line number the token was first seen at
+     * @param fingerprint hex encoded SHA-256 prefix of the token, the token itself is never reported
+     * @param outcome     the verification outcome
+     */
+    public record Result(long line, String fingerprint, Outcome outcome) {
+    }
+
+    /**
+     * Totals of a bulk verification run.
+     *
+     * @param total      number of tokens read, including duplicates
+     * @param duplicates number of tokens skipped because they were already verified
+     * @param outcomes   number of distinct tokens per outcome
+     */
+    public record Summary(long total, long duplicates, Map<Outcome, Long> outcomes) {
+    }
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+
+    private static final int IN_FLIGHT_PER_THREAD = 256;
+
+    private static final int DEFAULT_MAX_TRACKED_TOKENS = 1_000_000;
+
+    private final List<KeyVerifier> verifiers;
+    private final Clock clock;
+    private final int parallelism;
+    private final int maxTrackedTokens;
+
+    /**
+     * Creates a verifier using all available processors.
+     *
+     * @param keys  the current and rotated public keys tokens may be signed with
+     * @param clock the clock used to check token expiry
+     */
+    public BulkTokenVerifier(Collection<RSAKey> keys, Clock clock) {
+        this(keys, clock, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a verifier.
+     *
+     * @param keys        the current and rotated public keys tokens may be signed with
+     * @param clock       the clock used to check token expiry
+     * @param parallelism number of threads verifying tokens
+     */
+    public BulkTokenVerifier(Collection<RSAKey> keys, Clock clock, int parallelism) {
+        this(keys, clock, parallelism, DEFAULT_MAX_TRACKED_TOKENS);
+    }
+
+    /**
+     * Creates a verifier.
+     *
+     * @param keys             the current and rotated public keys tokens may be signed with
+     * @param clock            the clock used to check token expiry
+     * @param parallelism      number of threads verifying tokens
+     * @param maxTrackedTokens number of most recently seen distinct tokens remembered for deduplication
+     */
+    public BulkTokenVerifier(Collection<RSAKey> keys, Clock clock, int parallelism, int maxTrackedTokens) {
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one verification key is required");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        if (maxTrackedTokens < 1) {
+            throw new IllegalArgumentException("Max tracked tokens must be positive");
+        }
+
+        List<KeyVerifier> keyVerifiers = new ArrayList<>(keys.size());
+        for (RSAKey key : keys) {
+            try {
+                keyVerifiers.add(new KeyVerifier(key.getKeyID(), new RSASSAVerifier(key)));
+            } catch (JOSEException e) {
+                throw new IllegalArgumentException("Invalid verification key " + key.getKeyID(), e);
+            }
+        }
+
+        this.verifiers = List.copyOf(keyVerifiers);
+        this.clock = clock;
+        this.parallelism = parallelism;
+        this.maxTrackedTokens = maxTrackedTokens;
+    }
+
+    /**
+     * Verifies the tokens of a file, one token per line. An optional {@code Bearer } prefix is stripped
+     * and blank lines are skipped.
+     *
+     * @param input the file to read tokens from
+     * @param sink  receives the result of each distinct token, called by one thread at a time
+     * @return the totals of the run
+     * @throws IOException          if the file can not be read
+     * @throws InterruptedException if interrupted while waiting for the verification to complete
+     */
+    public Summary verify(Path input, Consumer<Result> sink) throws IOException, InterruptedException {
+        // tokens are plain ASCII, ISO-8859-1 decoding never fails on stray bytes in log files
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.ISO_8859_1)) {
+            return verify(reader.lines(), sink);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Verifies a stream of tokens. An optional {@code Bearer } prefix is stripped and blank entries are skipped.
+     *
+     * @param tokens the tokens to verify, consumed sequentially
+     * @param sink   receives the result of each distinct token, called by one thread at a time
+     * @return the totals of the run
+     * @throws InterruptedException if interrupted while waiting for the verification to complete
+     * @throws RuntimeException     the first failure of verifying a token or of the sink, reading stops at it
+     */
+    public Summary verify(Stream<String> tokens, Consumer<Result> sink) throws InterruptedException {
+
+        MessageDigest digest = sha256();
+        // only touched by the reading thread, forgets the least recently seen tokens once full
+        Map<Fingerprint, Boolean> seen = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Fingerprint, Boolean> eldest) {
+                return size() > maxTrackedTokens;
+            }
+        };
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Map<Outcome, LongAdder> counts = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            counts.put(outcome, new LongAdder());
+        }
+
+        // bounds memory, the reader never gets more than this many tokens ahead of the workers
+        Semaphore inFlight = new Semaphore(parallelism * IN_FLIGHT_PER_THREAD);
+        Object sinkLock = new Object();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+
+        long total = 0;
+        long duplicates = 0;
+        long line = 0;
+
+        try {
+            Iterator<String> iterator = tokens.iterator();
+            while (failure.get() == null && iterator.hasNext()) {
+                line++;
+                String token = normalize(iterator.next());
+                if (token.isEmpty()) {
+                    continue;
+                }
+
+                total++;
+                Fingerprint fingerprint = Fingerprint.of(digest.digest(token.getBytes(StandardCharsets.ISO_8859_1)));
+                if (seen.put(fingerprint, Boolean.TRUE) != null) {
+                    duplicates++;
+                    continue;
+                }
+
+                inFlight.acquire();
+                long tokenLine = line;
+                executor.execute(() -> {
+                    try {
+                        // tokens queued before a failure are dropped rather than reported
+                        if (failure.get() != null) {
+                            return;
+                        }
+                        Result result = new Result(tokenLine, fingerprint.toString(), verify(token));
+                        counts.get(result.outcome()).increment();
+                        synchronized (sinkLock) {
+                            if (failure.get() == null) {
+                                sink.accept(result);
+                            }
+                        }
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            if (!executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                log.warn("Bulk token verification did not terminate");
+            }
+        }
+
+        // only unchecked failures are captured
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException e) {
+            throw e;
+        }
+        if (error instanceof Error e) {
+            throw e;
+        }
+
+        Map<Outcome, Long> outcomes = new EnumMap<>(Outcome.class);
+        counts.forEach((outcome, count) -> outcomes.put(outcome, count.sum()));
+        return new Summary(total, duplicates, Collections.unmodifiableMap(outcomes));
+    }
+
+    /**
+     * Verifies a single token against the configured keys.
+     *
+     * @param token the serialized token
+     * @return the verification outcome
+     */
+    public Outcome verify(String token) {
+
+        SignedJWT jwt;
+        JWTClaimsSet claims;
+        try {
+            jwt = SignedJWT.parse(token);
+            claims = jwt.getJWTClaimsSet();
+        } catch (ParseException e) {
+            return Outcome.MALFORMED;
+        }
+
+        JWSHeader header = jwt.getHeader();
+        if (!JWSAlgorithm.Family.RSA.contains(header.getAlgorithm())) {
+            return Outcome.UNKNOWN_KEY;
+        }
+
+        String keyId = header.getKeyID();
+        boolean keyMatched = false;
+        for (KeyVerifier keyVerifier : verifiers) {
+            // tokens without an id try every key, keys without an id are candidates for any token
+            if (keyId != null && keyVerifier.keyId() != null && !keyId.equals(keyVerifier.keyId())) {
+                continue;
+            }
+
+            keyMatched = true;
+            try {
+                if (jwt.verify(keyVerifier.verifier())) {
+                    return isExpired(claims) ? Outcome.EXPIRED : Outcome.VALID;
+                }
+            } catch (JOSEException e) {
+                log.debug("Unable to verify token with key {}", keyVerifier.keyId(), e);
+            }
+        }
+
+        return keyMatched ? Outcome.BAD_SIGNATURE : Outcome.UNKNOWN_KEY;
+    }
+
+    private boolean isExpired(JWTClaimsSet claims) {
+        Date expiresAt = claims.getExpirationTime();
+        return expiresAt != null && Instant.now(clock).minus(CLOCK_SKEW).isAfter(expiresAt.toInstant());
+    }
+
+    private static String normalize(String line) {
+        String token = line.strip();
+        if (token.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            token = token.substring(BEARER_PREFIX.length()).strip();
+        }
+        return token;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Verifies a file of tokens and writes a tab separated report to the standard output.
+     *
+     * @param args the tokens file followed by one or more PEM encoded public key files
+     * @throws Exception if the files can not be read or the keys can not be loaded
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BulkTokenVerifier <tokens-file> <public-key-pem> [<public-key-pem> ...]");
+            System.exit(2);
+        }
+
+        List<RSAKey> keys = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            keys.add(publicKeyFromPem(Files.readString(Path.of(args[i]))));
+        }
+
+        BulkTokenVerifier verifier = new BulkTokenVerifier(keys, Clock.systemUTC());
+
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)))) {
+            Summary summary = verifier.verify(Path.of(args[0]), result ->
+                    out.append(String.valueOf(result.line())).append('\t')
+                            .append(result.fingerprint()).append('\t')
+                            .append(result.outcome().name()).append('\n'));
+
+            out.append("# total=").append(String.valueOf(summary.total()))
+                    .append(" duplicates=").append(String.valueOf(summary.duplicates()));
+            summary.outcomes().forEach((outcome, count) ->
+                    out.append(' ').append(outcome.name().toLowerCase()).append('=').append(String.valueOf(count)));
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Loads a PEM encoded RSA public key, identified by its RFC 7638 thumbprint like the keys
+     * tokens are signed with by {@link JwtSecurityConfig#jwkSource()}.
+     *
+     * @param pem the PEM encoded public key
+     * @return the public key
+     * @throws Exception if the key can not be loaded
+     */
+    public static RSAKey publicKeyFromPem(String pem) throws Exception {
+        RsaKeyProperties keyProperties = new RsaKeyProperties();
+        keyProperties.setPublicKey(pem);
+        keyProperties.initKeys();
+        return new RSAKey.Builder(keyProperties.getRsaPublicKey()).keyIDFromThumbprint().build();
+    }
+
+    private record KeyVerifier(String keyId, RSASSAVerifier verifier) {
+    }
+
+    /**
+     * Compact, collision resistant identity of a token, keeps the deduplication set small
+     * compared to holding the tokens themselves.
+     */
+    private record Fingerprint(long high, long low) {
+
+        static Fingerprint of(byte[] hash) {
+            long high = 0;
+            long low = 0;
+            for (int i = 0; i < 8; i++) {
+                high = (high << 8) | (hash[i] & 0xFF);
+                low = (low << 8) | (hash[i + 8] & 0xFF);
+            }
+            return new Fingerprint(high, low);
+        }
+
+        @Override
+        public String toString() {
+            return HexFormat.of().toHexDigits(high) + HexFormat.of().toHexDigits(low);
+        }
+    }
+}
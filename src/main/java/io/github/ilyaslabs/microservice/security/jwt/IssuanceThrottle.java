@@ -0,0 +1,216 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throttles token issuance per subject and/or issuer as configured in {@link JwtProperties.Throttle}.
+ * <p>
+ * Every key has a token bucket, tracked as the time at which the bucket is full again, so acquiring
+ * a token is a single compare-and-set without any locking. Full buckets carry no state and are
+ * evicted once the number of tracked keys reaches {@code maxEntries}, at most once per refill period
+ * so the sweep is amortized over all acquisitions in between.
+ * <p>
+ * {@code maxEntries} is a soft limit: new keys keep being tracked past it, up to twice as many, so a
+ * burst of new subjects does not lock out legitimate users. Only beyond that hard limit tokens for
+ * untracked keys are rejected until the next sweep, since the throttle exists to protect signing work.
+ * Such rejections are counted and logged at warn level, at most once a minute. Size {@code maxEntries}
+ * to at least the rate of new subjects per second times the refill period in seconds.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Slf4j
+@Component
+public class IssuanceThrottle {
+
+    private static final long WARN_INTERVAL_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private final JwtProperties.Throttle properties;
+    private final Clock clock;
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final AtomicLong nextSweepAt = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong nextWarnAt = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder rejectedUntrackedKeys = new LongAdder();
+
+    private final long intervalNanos;
+    private final long burstNanos;
+
+    public IssuanceThrottle(JwtProperties jwtProperties, Clock clock) {
+        this.properties = jwtProperties.getThrottle();
+        this.clock = clock;
+
+        if (properties.getCapacity() == null || properties.getCapacity() < 1) {
+            throw new IllegalArgumentException("Throttle capacity must be positive");
+        }
+        if (properties.getRefillPeriod() == null || properties.getRefillPeriod() < 1) {
+            throw new IllegalArgumentException("Throttle refill period must be positive");
+        }
+        if (properties.getMaxEntries() == null || properties.getMaxEntries() < 1) {
+            throw new IllegalArgumentException("Throttle max entries must be positive");
+        }
+
+        try {
+            this.intervalNanos = properties.getRefillPeriodDuration().toNanos();
+            this.burstNanos = Math.multiplyExact(intervalNanos, properties.getCapacity());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Throttle capacity times refill period must not exceed 292 years", e);
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of the given subject and issuer.
+     *
+     * @param subject the subject of the token to be issued
+     * @param issuer  the issuer of the token to be issued
+     * @throws TokenIssuanceThrottledException if the bucket is empty, or the key is not tracked and no more keys can be
+     */
+    public void acquire(String subject, String issuer) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        String key = switch (properties.getKey()) {
+            case SUBJECT -> String.valueOf(subject);
+            case ISSUER -> String.valueOf(issuer);
+            case SUBJECT_AND_ISSUER -> subject + '\n' + issuer;
+        };
+
+        long now = nowNanos();
+        while (true) {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = track(key, now);
+            }
+
+            long waitNanos = bucket.tryAcquire(now);
+            if (waitNanos == Bucket.RETIRED) {
+                // evicted concurrently, it was full so a fresh bucket is equivalent
+                buckets.remove(key, bucket);
+                continue;
+            }
+            if (waitNanos > 0) {
+                throw new TokenIssuanceThrottledException(Duration.ofNanos(waitNanos));
+            }
+            return;
+        }
+    }
+
+    /**
+     * @return the number of keys currently tracked
+     */
+    int size() {
+        return buckets.size();
+    }
+
+    /**
+     * @return the number of tokens rejected because their key could not be tracked
+     */
+    public long getRejectedUntrackedKeys() {
+        return rejectedUntrackedKeys.sum();
+    }
+
+    private Bucket track(String key, long now) {
+        if (buckets.size() >= properties.getMaxEntries()) {
+            evictFullBuckets(now);
+            // past the soft limit keys are still tracked, up to the hard limit
+            if (buckets.size() >= hardLimit()) {
+                rejectUntracked(now);
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    private void rejectUntracked(long now) {
+        rejectedUntrackedKeys.increment();
+
+        long warnAt = nextWarnAt.get();
+        if (now >= warnAt && nextWarnAt.compareAndSet(warnAt, now + WARN_INTERVAL_NANOS)) {
+            log.warn("Issuance throttle tracks {} keys, rejecting tokens for new keys ({} so far). " +
+                            "Consider raising max-entries to at least new subjects per second times the refill period",
+                    buckets.size(), rejectedUntrackedKeys.sum());
+        }
+
+        long waitNanos = Math.max(nextSweepAt.get() - now, 1);
+        throw new TokenIssuanceThrottledException(Duration.ofNanos(waitNanos));
+    }
+
+    private long hardLimit() {
+        return 2L * properties.getMaxEntries();
+    }
+
+    private void evictFullBuckets(long now) {
+        long sweepAt = nextSweepAt.get();
+        // a single thread sweeps once per interval, others carry on rather than queue behind it
+        if (now < sweepAt || !nextSweepAt.compareAndSet(sweepAt, now + intervalNanos)) {
+            return;
+        }
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.forEach((key, bucket) -> {
+                if (bucket.retireIfFull(now)) {
+                    buckets.remove(key, bucket);
+                }
+            });
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private long nowNanos() {
+        Instant now = clock.instant();
+        return Math.addExact(Math.multiplyExact(now.getEpochSecond(), 1_000_000_000L), now.getNano());
+    }
+
+    /**
+     * Token bucket stored as the instant, in nanos, at which it is full again.
+     * Taking a token moves that instant one interval ahead, the bucket is empty when it is
+     * more than the burst ahead of now. An evicted bucket is retired so no token can be taken
+     * from it after it left the map.
+     */
+    private final class Bucket {
+
+        static final long RETIRED = -1L;
+
+        private static final long RETIRED_STATE = Long.MAX_VALUE;
+
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * @return 0 if a token was taken, {@link #RETIRED} if the bucket was evicted, otherwise the nanos until the
+         * next token is available
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                if (current == RETIRED_STATE) {
+                    return RETIRED;
+                }
+                long next = Math.max(current, now) + intervalNanos;
+                long ahead = next - now;
+                if (ahead > burstNanos) {
+                    return ahead - burstNanos;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean retireIfFull(long now) {
+            long current = fullAt.get();
+            return current != RETIRED_STATE && current <= now && fullAt.compareAndSet(current, RETIRED_STATE);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes the public keys of the {@link JWKSource} used to sign tokens as a JWK Set,
+ * so resource servers can verify tokens without copying keys around.
+ * <p>
+ * The JSON is serialized once and served as is. The key source is consulted at most once per max-age,
+ * and the JSON is only rebuilt when the public keys, including their parameters such as
+ * {@code kid}, {@code use} and {@code alg}, changed. Responses carry a strong
+ * {@code ETag} and {@code Cache-Control: max-age}, conditional requests are answered with 304.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@RestController
+@ConditionalOnProperty(prefix = "io.github.ilyaslabs.microservice.security.jwt.jwks", name = "enabled", havingValue = "true")
+public class JwksController {
+
+    private static final JWKSelector ALL_KEYS = new JWKSelector(new JWKMatcher.Builder().build());
+
+    private final JWKSource<SecurityContext> jwkSource;
+    private final Clock clock;
+    private final CacheControl cacheControl;
+    private final long maxAgeMillis;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    public JwksController(JWKSource<SecurityContext> jwkSource, JwtProperties jwtProperties, Clock clock) {
+        this.jwkSource = jwkSource;
+        this.clock = clock;
+        this.cacheControl = CacheControl.maxAge(jwtProperties.getJwks().getMaxAgeDuration());
+        this.maxAgeMillis = jwtProperties.getJwks().getMaxAgeDuration().toMillis();
+    }
+
+    /**
+     * Returns the JWK Set of the active verification keys, 304 Not Modified is handled by Spring based on the ETag.
+     *
+     * @return the pre-serialized JWK Set
+     * @throws KeySourceException if the keys can not be retrieved
+     */
+    @GetMapping("${io.github.ilyaslabs.microservice.security.jwt.jwks.path:/.well-known/jwks.json}")
+    public ResponseEntity<byte[]> jwks() throws KeySourceException {
+        Snapshot current = currentSnapshot();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(cacheControl)
+                .eTag(current.eTag())
+                .body(current.body());
+    }
+
+    private Snapshot currentSnapshot() throws KeySourceException {
+        long now = clock.millis();
+        Snapshot current = snapshot;
+        if (current != null && now < current.checkAt()) {
+            return current;
+        }
+
+        if (!refreshing.compareAndSet(false, true)) {
+            // another request is refreshing, serve what we have; the very first requests each load the same bytes
+            return current != null ? current : load(null, now);
+        }
+
+        try {
+            current = snapshot;
+            if (current == null || now >= current.checkAt()) {
+                current = load(current, now);
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private Snapshot load(Snapshot previous, long now) throws KeySourceException {
+        JWKSet publicKeys = new JWKSet(jwkSource.get(ALL_KEYS, null)).toPublicJWKSet();
+        // JWK equality covers all key parameters, so a changed kid, use or alg is published too
+        if (previous != null && previous.keys().equals(publicKeys.getKeys())) {
+            return previous.checkedAt(now + maxAgeMillis);
+        }
+        return Snapshot.of(publicKeys, now + maxAgeMillis);
+    }
+
+    /**
+     * The serialized public JWK Set, with its keys and the time to check the keys again.
+     */
+    private record Snapshot(List<JWK> keys, byte[] body, String eTag, long checkAt) {
+
+        static Snapshot of(JWKSet publicKeys, long checkAt) {
+            byte[] body = publicKeys.toString().getBytes(StandardCharsets.UTF_8);
+            String eTag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(body)) + "\"";
+            return new Snapshot(List.copyOf(publicKeys.getKeys()), body, eTag, checkAt);
+        }
+
+        Snapshot checkedAt(long checkAt) {
+            return new Snapshot(keys, body, eTag, checkAt);
+        }
+
+        private static byte[] sha256(byte[] body) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(body);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+}
@@ -19,6 +19,10 @@ public class JwtProperties {
     private ChronoUnit refreshExpiryUnit = ChronoUnit.DAYS;
     private Long refreshExpiry = 30L; // Default to 30 days
 
+    private Throttle throttle = new Throttle();
+
+    private Jwks jwks = new Jwks();
+
     /**
      * Calculates the expiration time in seconds based on the defined expiry value and unit.
      *
@@ -27,4 +31,64 @@ public class JwtProperties {
     public Long getExpiryInSeconds() {
         return Duration.of(expiry, expiryUnit).getSeconds();
     }
+
+    /**
+     * Per subject and/or issuer throttling of token issuance, disabled by default.
+     * Each key may issue {@code capacity} tokens in a burst, one more token becomes available every refill period.
+     * {@code maxEntries} is a soft limit, size it to at least new subjects per second times the refill period.
+     * Keys past twice that many are rejected until idle keys are evicted.
+     */
+    @Data
+    public static class Throttle {
+
+        private boolean enabled = false;
+        private Key key = Key.SUBJECT;
+
+        private Long capacity = 10L;
+
+        private ChronoUnit refillPeriodUnit = ChronoUnit.SECONDS;
+        private Long refillPeriod = 6L; // Default to 10 tokens per minute
+
+        private Integer maxEntries = 100_000; // Soft limit of tracked keys
+
+        /**
+         * The token attributes throttling is keyed by.
+         */
+        public enum Key {
+            SUBJECT,
+            ISSUER,
+            SUBJECT_AND_ISSUER
+        }
+
+        /**
+         * Calculates the refill period based on the defined value and unit.
+         *
+         * @return the refill period as a Duration.
+         */
+        public Duration getRefillPeriodDuration() {
+            return Duration.of(refillPeriod, refillPeriodUnit);
+        }
+    }
+
+    /**
+     * Publishing of the public signing keys as a JWK Set, disabled by default.
+     */
+    @Data
+    public static class Jwks {
+
+        private boolean enabled = false;
+        private String path = "/.well-known/jwks.json";
+
+        private ChronoUnit maxAgeUnit = ChronoUnit.MINUTES;
+        private Long maxAge = 5L; // Default to 5 minutes
+
+        /**
+         * Calculates the max age consumers may cache the JWK Set based on the defined value and unit.
+         *
+         * @return the max age as a Duration.
+         */
+        public Duration getMaxAgeDuration() {
+            return Duration.of(maxAge, maxAgeUnit);
+        }
+    }
 }
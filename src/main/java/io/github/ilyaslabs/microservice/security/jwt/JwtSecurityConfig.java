@@ -1,17 +1,27 @@
 package io.github.ilyaslabs.microservice.security.jwt;
 
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
 import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyType;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
+import jakarta.servlet.Filter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -24,9 +34,20 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.web.DefaultSecurityFilterChain;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.header.HeaderWriterFilter;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.HstsHeaderWriter;
+import org.springframework.security.web.header.writers.XContentTypeOptionsHeaderWriter;
+import org.springframework.security.web.header.writers.XXssProtectionHeaderWriter;
+import org.springframework.security.web.header.writers.frameoptions.XFrameOptionsHeaderWriter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import java.io.IOException;
+import java.time.Clock;
+import java.util.List;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
@@ -85,7 +106,7 @@ public class JwtSecurityConfig {
     }
 
     @Bean(name = "defaultSecurityFilterChain")
-    @ConditionalOnMissingBean(SecurityFilterChain.class)
+    @ConditionalOnMissingBean(value = SecurityFilterChain.class, ignored = JwksSecurityFilterChain.class)
     public SecurityFilterChain defaultSecurityFilterChain(HttpSecurity http) throws Exception {
         log.info("Configuring default security filter chain");
         return http.build();
@@ -102,24 +123,105 @@ public class JwtSecurityConfig {
     }
 
     /**
-     * Creates a JwtDecoder bean for decoding JWT tokens.
+     * Creates a JwtDecoder bean for decoding JWT tokens, verifying them against the keys of the JWKSource.
      *
+     * @param jwkSource the keys tokens are signed with
      * @return a JwtDecoder instance
      */
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(rsaKeyProperties.getRsaPublicKey()).build();
+    public JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource) {
+        return NimbusJwtDecoder.withJwkSource(jwkSource).build();
     }
 
     /**
-     * Creates a JwtEncoder bean for encoding JWT tokens.
+     * Creates a JwtEncoder bean for encoding JWT tokens, signing with the first key of the JWKSource.
      *
+     * @param jwkSource the keys tokens are signed with
      * @return a JwtEncoder instance
      */
     @Bean
-    public JwtEncoder jwtEncoder() {
-        RSAKey rsaKey = new RSAKey.Builder(rsaKeyProperties.getRsaPublicKey()).privateKey(rsaKeyProperties.getRsaPrivateKey()).build();
-        ImmutableJWKSet<SecurityContext> securityContextImmutableJWKSet = new ImmutableJWKSet<>(new JWKSet(rsaKey));
-        return new NimbusJwtEncoder(securityContextImmutableJWKSet);
+    public JwtEncoder jwtEncoder(JWKSource<SecurityContext> jwkSource) {
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(jwkSource);
+        // a rotating source holds the active key and the previous ones, the active key comes first
+        encoder.setJwkSelector(jwks -> jwks.getFirst());
+        return encoder;
+    }
+
+    /**
+     * Creates a JWKSource bean holding the keys used to sign JWT tokens, unless the application provides its own,
+     * e.g. a rotating source. A custom source must return the active signing key first, followed by the keys
+     * tokens signed earlier are still verified with. The key id is the RFC 7638 thumbprint of the key.
+     *
+     * @return a JWKSource instance
+     * @throws JOSEException if the thumbprint can not be computed
+     */
+    @Bean
+    @ConditionalOnMissingBean(JWKSource.class)
+    public JWKSource<SecurityContext> jwkSource() throws JOSEException {
+        RSAKey rsaKey = new RSAKey.Builder(rsaKeyProperties.getRsaPublicKey())
+                .privateKey(rsaKeyProperties.getRsaPrivateKey())
+                .keyIDFromThumbprint()
+                .build();
+        return new ImmutableJWKSet<>(new JWKSet(rsaKey));
+    }
+
+    /**
+     * Creates a security filter chain permitting everyone to the JWK Set endpoint, ordered ahead of the application's
+     * chains. It only writes the default security headers, unlike ignoring the path, and is built without HttpSecurity
+     * since the primary httpSecurity bean above is shared by the application's chains.
+     *
+     * @param jwtProperties the JWT properties holding the JWK Set path
+     * @return the JWK Set security filter chain
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @ConditionalOnProperty(prefix = "io.github.ilyaslabs.microservice.security.jwt.jwks", name = "enabled", havingValue = "true")
+    public JwksSecurityFilterChain jwksSecurityFilterChain(JwtProperties jwtProperties) {
+        HeaderWriterFilter headerWriterFilter = new HeaderWriterFilter(List.of(
+                new XContentTypeOptionsHeaderWriter(),
+                new XXssProtectionHeaderWriter(),
+                new CacheControlHeadersWriter(), // keeps the endpoint's own Cache-Control
+                new HstsHeaderWriter(),
+                new XFrameOptionsHeaderWriter()
+        ));
+        RequestMatcher matcher = PathPatternRequestMatcher.withDefaults().matcher(jwtProperties.getJwks().getPath());
+        return new JwksSecurityFilterChain(new DefaultSecurityFilterChain(matcher, headerWriterFilter));
+    }
+
+    /**
+     * Creates a BulkTokenVerifier bean verifying tokens against the public RSA keys of the JWKSource at startup.
+     * Define your own bean to also verify against keys the source no longer holds.
+     *
+     * @param jwkSource the keys tokens are signed with
+     * @param clock     the clock used to check token expiry
+     * @return a BulkTokenVerifier instance
+     * @throws KeySourceException if the keys can not be retrieved
+     */
+    @Bean
+    @ConditionalOnMissingBean(BulkTokenVerifier.class)
+    public BulkTokenVerifier bulkTokenVerifier(JWKSource<SecurityContext> jwkSource, Clock clock) throws KeySourceException {
+        List<RSAKey> publicKeys = jwkSource.get(new JWKSelector(new JWKMatcher.Builder().keyType(KeyType.RSA).build()), null)
+                .stream()
+                .map(jwk -> ((RSAKey) jwk).toPublicJWK())
+                .toList();
+        return new BulkTokenVerifier(publicKeys, clock);
+    }
+
+    /**
+     * Security filter chain of the JWK Set endpoint, a distinct type so it does not replace the default chain.
+     *
+     * @param delegate the chain built for the JWK Set path
+     */
+    public record JwksSecurityFilterChain(SecurityFilterChain delegate) implements SecurityFilterChain {
+
+        @Override
+        public boolean matches(HttpServletRequest request) {
+            return delegate.matches(request);
+        }
+
+        @Override
+        public List<Filter> getFilters() {
+            return delegate.getFilters();
+        }
     }
 }
@@ -30,6 +30,7 @@ public class JwtTokenService {
     private final JwtEncoder encoder;
     private final JwtProperties jwtProperties;
     private final Clock clock;
+    private final IssuanceThrottle issuanceThrottle;
 
     /**
      * Representing the scope claim key in the JWT token
@@ -50,6 +51,7 @@ public class JwtTokenService {
      * @param scopes  the scopes associated with the token
      * @param expiry the expiry after now
      * @return the generated JWT token as a string
+     * @throws TokenIssuanceThrottledException if throttling is enabled and the subject or issuer exceeded its issuance rate
      */
     public Jwt generateToken(
             String subject,
@@ -57,6 +59,7 @@ public class JwtTokenService {
             Map<String, String> claims,
             List<String> scopes,
             Duration expiry) {
+        issuanceThrottle.acquire(subject, issuer);
         return encoder
                 .encode(JwtEncoderParameters.from(buildClaims(subject, issuer, claims, scopes, expiry)));
     }
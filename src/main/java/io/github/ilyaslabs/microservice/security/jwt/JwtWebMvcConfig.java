@@ -0,0 +1,23 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC configuration registering the scope checks of {@link RequireScope} and {@link RequireAnyScope}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Configuration
+@RequiredArgsConstructor
+public class JwtWebMvcConfig implements WebMvcConfigurer {
+
+    private final ScopeAuthorizationInterceptor scopeAuthorizationInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(scopeAuthorizationInterceptor);
+    }
+}
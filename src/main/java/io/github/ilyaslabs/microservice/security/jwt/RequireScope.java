@@ -0,0 +1,28 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts a controller method, or all methods of a controller, to tokens having all the given scopes.
+ * Scopes are matched case-insensitively, like {@link JwtTokenService#hasScope(String)}.
+ * A method level annotation overrides a controller level one of the same type, while a
+ * {@link RequireAnyScope} from either level applies in addition, both requirements must be met.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ * @see RequireAnyScope
+ * @see ScopeAuthorizationInterceptor
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequireScope {
+
+    /**
+     * @return the scopes the token must all have
+     */
+    String[] value();
+}
@@ -0,0 +1,209 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces {@link RequireScope} and {@link RequireAnyScope} on controller methods.
+ * <p>
+ * At startup every scope used by an annotation gets a bit index and the requirement of each handler
+ * method is compiled into bitmasks. Per request the scope claim of the token is turned into a bitmask
+ * once, so checking a requirement is a bitwise AND per 64 scopes instead of string comparisons.
+ * Handler methods registered after startup are compiled on first use.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Slf4j
+@Component
+public class ScopeAuthorizationInterceptor implements HandlerInterceptor, SmartInitializingSingleton, ApplicationContextAware {
+
+    private static final Requirement NONE = new Requirement(new long[0], new long[0]);
+
+    private final Map<String, Integer> scopeIndex = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    private final Map<HandlerKey, Requirement> requirements = new ConcurrentHashMap<>();
+
+    private ApplicationContext applicationContext;
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Compiles the scope requirements of all handler methods known at startup.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        applicationContext.getBeansOfType(RequestMappingHandlerMapping.class)
+                .values()
+                .forEach(mapping -> mapping.getHandlerMethods()
+                        .values()
+                        .forEach(handlerMethod -> requirementOf(handlerMethod.getBeanType(), handlerMethod.getMethod())));
+
+        log.info("Compiled scope requirements of {} handler methods using {} scopes", requirements.size(), scopeIndex.size());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        Requirement requirement = requirementOf(handlerMethod.getBeanType(), handlerMethod.getMethod());
+        if (requirement == NONE) {
+            return true;
+        }
+
+        if (!requirement.isSatisfiedBy(tokenScopes())) {
+            throw new AccessDeniedException("Insufficient scope");
+        }
+
+        return true;
+    }
+
+    private Requirement requirementOf(Class<?> beanType, Method method) {
+        Requirement requirement = requirements.get(new HandlerKey(beanType, method));
+        if (requirement != null) {
+            return requirement;
+        }
+        return requirements.computeIfAbsent(new HandlerKey(beanType, method), key -> compile(beanType, method));
+    }
+
+    /**
+     * Compiles the requirement of a handler method, each annotation type is looked up on the method first and
+     * then on the controller, the two types combine.
+     */
+    private Requirement compile(Class<?> beanType, Method method) {
+        RequireScope all = AnnotatedElementUtils.findMergedAnnotation(method, RequireScope.class);
+        if (all == null) {
+            all = AnnotatedElementUtils.findMergedAnnotation(beanType, RequireScope.class);
+        }
+
+        RequireAnyScope any = AnnotatedElementUtils.findMergedAnnotation(method, RequireAnyScope.class);
+        if (any == null) {
+            any = AnnotatedElementUtils.findMergedAnnotation(beanType, RequireAnyScope.class);
+        }
+
+        if (all == null && any == null) {
+            return NONE;
+        }
+
+        // an empty requirement would let every caller through, fail at startup instead
+        if ((all != null && all.value().length == 0) || (any != null && any.value().length == 0)) {
+            throw new IllegalStateException("Empty scope requirement on " + beanType.getName() + "#" + method.getName());
+        }
+
+        return new Requirement(
+                all == null ? new long[0] : mask(all.value()),
+                any == null ? new long[0] : mask(any.value())
+        );
+    }
+
+    private long[] mask(String[] scopes) {
+        long[] mask = new long[0];
+        for (String scope : scopes) {
+            int index = scopeIndex.computeIfAbsent(normalize(scope), s -> nextIndex.getAndIncrement());
+            mask = set(mask, index);
+        }
+        return mask;
+    }
+
+    /**
+     * Builds the bitmask of the scopes of the authenticated token, scopes not used by any requirement are ignored.
+     */
+    private long[] tokenScopes() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof Jwt jwt)) {
+            return new long[0];
+        }
+
+        Object claim = jwt.getClaims().get(JwtTokenService.KEY_SCOPE_CLAIM);
+        long[] mask = new long[(nextIndex.get() + 63) >>> 6];
+
+        if (claim instanceof String scopes) {
+            for (String scope : scopes.split(" ")) {
+                mask = set(mask, scope);
+            }
+        } else if (claim instanceof Collection<?> scopes) {
+            for (Object scope : scopes) {
+                mask = set(mask, String.valueOf(scope));
+            }
+        }
+
+        return mask;
+    }
+
+    private long[] set(long[] mask, String scope) {
+        Integer index = scopeIndex.get(normalize(scope));
+        return index == null ? mask : set(mask, index);
+    }
+
+    private static long[] set(long[] mask, int index) {
+        int word = index >>> 6;
+        if (word >= mask.length) {
+            mask = Arrays.copyOf(mask, word + 1);
+        }
+        mask[word] |= 1L << index;
+        return mask;
+    }
+
+    private static String normalize(String scope) {
+        return scope.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private record HandlerKey(Class<?> beanType, Method method) {
+    }
+
+    /**
+     * Compiled scope requirement of a handler method.
+     *
+     * @param all bits of the scopes that must all be present
+     * @param any bits of the scopes of which at least one must be present, empty if not required
+     */
+    private record Requirement(long[] all, long[] any) {
+
+        boolean isSatisfiedBy(long[] scopes) {
+            for (int i = 0; i < all.length; i++) {
+                long present = i < scopes.length ? scopes[i] : 0L;
+                if ((present & all[i]) != all[i]) {
+                    return false;
+                }
+            }
+
+            if (any.length == 0) {
+                return true;
+            }
+
+            for (int i = 0; i < any.length && i < scopes.length; i++) {
+                if ((scopes[i] & any[i]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a token is requested for a subject or issuer that exceeded its issuance rate.
+ * Resolved by Spring MVC to 429 Too Many Requests with a {@code Retry-After} header.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@Getter
+public class TokenIssuanceThrottledException extends ResponseStatusException {
+
+    /**
+     * The time after which a token can be issued again for the same key
+     */
+    private final Duration retryAfter;
+
+    public TokenIssuanceThrottledException(Duration retryAfter) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Token issuance throttled");
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        // Retry-After is in whole seconds, round up so clients never retry too early
+        long seconds = Math.max(1, retryAfter.plusNanos(999_999_999).getSeconds());
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        return headers;
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link BulkTokenVerifier}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Import(TestFixedClockConfiguration.class)
+class BulkTokenVerifierTest extends BaseTest {
+
+    @Autowired
+    private BulkTokenVerifier bulkTokenVerifier;
+
+    @Autowired
+    private TestFixedClockConfiguration.MutableClock clock;
+
+    @Autowired
+    private RsaKeyProperties rsaKeyProperties;
+
+    @Test
+    void testVerifyFile(@TempDir Path dir) throws Exception {
+        var now = Instant.now();
+
+        clock.set(now.minus(Duration.ofDays(1)));
+        Jwt expired = generateTestToken();
+
+        clock.set(now);
+        Jwt valid = generateTestToken();
+        Jwt other = jwtTokenService.generateRefreshToken("other", "https://ilyaslabs.github.io", null, null);
+
+        String[] validParts = valid.getTokenValue().split("\\.");
+        String[] otherParts = other.getTokenValue().split("\\.");
+        String tampered = validParts[0] + "." + otherParts[1] + "." + validParts[2];
+
+        Path input = dir.resolve("tokens.log");
+        Files.write(input, List.of(
+                valid.getTokenValue(),
+                "Bearer " + valid.getTokenValue(),
+                "",
+                expired.getTokenValue(),
+                tampered,
+                "not-a-token",
+                other.getTokenValue()
+        ));
+
+        List<BulkTokenVerifier.Result> results = new ArrayList<>();
+        BulkTokenVerifier.Summary summary = bulkTokenVerifier.verify(input, results::add);
+
+        assertThat(summary.total()).isEqualTo(6);
+        assertThat(summary.duplicates()).isEqualTo(1);
+        assertThat(summary.outcomes())
+                .containsEntry(BulkTokenVerifier.Outcome.VALID, 2L)
+                .containsEntry(BulkTokenVerifier.Outcome.EXPIRED, 1L)
+                .containsEntry(BulkTokenVerifier.Outcome.BAD_SIGNATURE, 1L)
+                .containsEntry(BulkTokenVerifier.Outcome.MALFORMED, 1L)
+                .containsEntry(BulkTokenVerifier.Outcome.UNKNOWN_KEY, 0L);
+
+        assertThat(results).hasSize(5);
+        assertThat(results)
+                .filteredOn(result -> result.line() == 5)
+                .extracting(BulkTokenVerifier.Result::outcome)
+                .containsExactly(BulkTokenVerifier.Outcome.BAD_SIGNATURE);
+        assertThat(results)
+                .extracting(BulkTokenVerifier.Result::fingerprint)
+                .noneMatch(fingerprint -> valid.getTokenValue().contains(fingerprint));
+    }
+
+    @Test
+    void testVerifyTokenKeyIdAgainstPemKey() throws Exception {
+        clock.set(Instant.now());
+
+        String pem = new ClassPathResource("publickey.pem").getContentAsString(StandardCharsets.UTF_8);
+        RSAKey publicKey = BulkTokenVerifier.publicKeyFromPem(pem);
+        var verifier = new BulkTokenVerifier(List.of(publicKey), clock);
+
+        assertThat(verifier.verify(signedToken(publicKey.getKeyID()))).isEqualTo(BulkTokenVerifier.Outcome.VALID);
+        assertThat(verifier.verify(signedToken(null))).isEqualTo(BulkTokenVerifier.Outcome.VALID);
+        assertThat(verifier.verify(signedToken("rotated-1"))).isEqualTo(BulkTokenVerifier.Outcome.UNKNOWN_KEY);
+
+        // tokens issued by the service carry the thumbprint as key id
+        assertThat(verifier.verify(generateTestToken().getTokenValue())).isEqualTo(BulkTokenVerifier.Outcome.VALID);
+    }
+
+    @Test
+    void testVerifyRethrowsSinkFailure() {
+        Jwt jwt = generateTestToken();
+
+        assertThatThrownBy(() -> bulkTokenVerifier.verify(Stream.of(jwt.getTokenValue()), result -> {
+            throw new IllegalStateException("sink failed");
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("sink failed");
+    }
+
+    private String signedToken(String keyId) throws Exception {
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(keyId).build(),
+                new JWTClaimsSet.Builder()
+                        .subject("testSubject")
+                        .expirationTime(Date.from(clock.instant().plusSeconds(60)))
+                        .build());
+        jwt.sign(new RSASSASigner(rsaKeyProperties.getRsaPrivateKey()));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for a custom {@link JWKSource} holding an active and a previous key.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CustomJwkSourceTest extends BaseTest {
+
+    private static final RSAKey ACTIVE_KEY = generateKey();
+    private static final RSAKey PREVIOUS_KEY = generateKey();
+
+    @Autowired
+    private BulkTokenVerifier bulkTokenVerifier;
+
+    @Test
+    void testTokenSignedWithActiveKey() throws Exception {
+        Jwt jwt = generateTestToken();
+
+        assertThat(jwt.getHeaders()).containsEntry("kid", ACTIVE_KEY.getKeyID());
+
+        mockMvc.perform(get("/api/test")
+                        .header("Authorization", "Bearer " + jwt.getTokenValue()))
+                .andExpect(status().isOk());
+
+        assertThat(bulkTokenVerifier.verify(jwt.getTokenValue())).isEqualTo(BulkTokenVerifier.Outcome.VALID);
+    }
+
+    @Test
+    void testTokenSignedWithPreviousKeyStillAccepted() throws Exception {
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(PREVIOUS_KEY.getKeyID()).build(),
+                new JWTClaimsSet.Builder()
+                        .subject("testSubject")
+                        .expirationTime(Date.from(Instant.now().plusSeconds(60)))
+                        .build());
+        jwt.sign(new RSASSASigner(PREVIOUS_KEY));
+
+        mockMvc.perform(get("/api/test")
+                        .header("Authorization", "Bearer " + jwt.serialize()))
+                .andExpect(status().isOk());
+
+        assertThat(bulkTokenVerifier.verify(jwt.serialize())).isEqualTo(BulkTokenVerifier.Outcome.VALID);
+    }
+
+    private static RSAKey generateKey() {
+        try {
+            return new RSAKeyGenerator(2048).keyIDFromThumbprint(true).generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TestConfiguration
+    static class CustomJwkSourceConfiguration {
+
+        @Bean
+        @Primary
+        JWKSource<SecurityContext> customJwkSource() {
+            return new ImmutableJWKSet<>(new JWKSet(List.of(ACTIVE_KEY, PREVIOUS_KEY)));
+        }
+    }
+}
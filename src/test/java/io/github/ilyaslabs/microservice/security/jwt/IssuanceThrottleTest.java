@@ -0,0 +1,187 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link IssuanceThrottle}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class IssuanceThrottleTest {
+
+    private static final String ISSUER = "https://ilyaslabs.github.io";
+
+    private JwtProperties jwtProperties;
+    private TestFixedClockConfiguration.MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        jwtProperties = new JwtProperties();
+        jwtProperties.getThrottle().setEnabled(true);
+        jwtProperties.getThrottle().setCapacity(2L);
+        jwtProperties.getThrottle().setRefillPeriod(1L);
+        jwtProperties.getThrottle().setRefillPeriodUnit(ChronoUnit.SECONDS);
+        clock = new TestFixedClockConfiguration.MutableClock(Instant.now(), ZoneId.of("UTC"));
+    }
+
+    @Test
+    void testThrottlesAfterCapacity() {
+        var throttle = new IssuanceThrottle(jwtProperties, clock);
+
+        throttle.acquire("test", ISSUER);
+        throttle.acquire("test", ISSUER);
+
+        assertThatThrownBy(() -> throttle.acquire("test", ISSUER))
+                .isInstanceOf(TokenIssuanceThrottledException.class)
+                .extracting(e -> ((TokenIssuanceThrottledException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(1));
+
+        // other subjects have their own bucket
+        assertThatNoException().isThrownBy(() -> throttle.acquire("other", ISSUER));
+
+        clock.add(Duration.ofSeconds(1));
+        assertThatNoException().isThrownBy(() -> throttle.acquire("test", ISSUER));
+    }
+
+    @Test
+    void testThrottlesByIssuer() {
+        jwtProperties.getThrottle().setKey(JwtProperties.Throttle.Key.ISSUER);
+        var throttle = new IssuanceThrottle(jwtProperties, clock);
+
+        throttle.acquire("first", ISSUER);
+        throttle.acquire("second", ISSUER);
+
+        assertThatThrownBy(() -> throttle.acquire("third", ISSUER))
+                .isInstanceOf(TokenIssuanceThrottledException.class);
+    }
+
+    @Test
+    void testDisabled() {
+        jwtProperties.getThrottle().setEnabled(false);
+        var throttle = new IssuanceThrottle(jwtProperties, clock);
+
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("test", ISSUER);
+        }
+
+        assertThat(throttle.size()).isZero();
+    }
+
+    @Test
+    void testEvictsFullBuckets() {
+        jwtProperties.getThrottle().setMaxEntries(2);
+        var throttle = new IssuanceThrottle(jwtProperties, clock);
+
+        throttle.acquire("first", ISSUER);
+        throttle.acquire("second", ISSUER);
+        assertThat(throttle.size()).isEqualTo(2);
+
+        clock.add(Duration.ofSeconds(1));
+        throttle.acquire("third", ISSUER);
+
+        assertThat(throttle.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testTracksPastSoftLimit() {
+        jwtProperties.getThrottle().setMaxEntries(2);
+        var throttle = new IssuanceThrottle(jwtProperties, clock);
+
+        throttle.acquire("first", ISSUER);
+        throttle.acquire("second", ISSUER);
+        throttle.acquire("third", ISSUER);
+        throttle.acquire("fourth", ISSUER);
+
+        assertThat(throttle.size()).isEqualTo(4);
+        assertThat(throttle.getRejectedUntrackedKeys()).isZero();
+    }
+
+    @Test
+    void testRejectsUntrackedKeysPastHardLimit() {
+        jwtProperties.getThrottle().setMaxEntries(2);
+        var throttle = new IssuanceThrottle(jwtProperties, clock);
+
+        throttle.acquire("first", ISSUER);
+        throttle.acquire("second", ISSUER);
+        throttle.acquire("third", ISSUER);
+        throttle.acquire("fourth", ISSUER);
+
+        assertThatThrownBy(() -> throttle.acquire("fifth", ISSUER))
+                .isInstanceOf(TokenIssuanceThrottledException.class);
+        assertThat(throttle.size()).isEqualTo(4);
+        assertThat(throttle.getRejectedUntrackedKeys()).isEqualTo(1);
+
+        // tracked keys keep their own buckets
+        assertThatNoException().isThrownBy(() -> throttle.acquire("first", ISSUER));
+
+        // the next sweep makes room once buckets are full again
+        clock.add(Duration.ofSeconds(2));
+        assertThatNoException().isThrownBy(() -> throttle.acquire("fifth", ISSUER));
+    }
+
+    @Test
+    void testRejectsInvalidProperties() {
+        jwtProperties.getThrottle().setCapacity(0L);
+        assertThatThrownBy(() -> new IssuanceThrottle(jwtProperties, clock))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        jwtProperties.getThrottle().setCapacity(2L);
+        jwtProperties.getThrottle().setRefillPeriod(0L);
+        assertThatThrownBy(() -> new IssuanceThrottle(jwtProperties, clock))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        jwtProperties.getThrottle().setRefillPeriod(1L);
+        jwtProperties.getThrottle().setRefillPeriodUnit(ChronoUnit.DAYS);
+        jwtProperties.getThrottle().setCapacity(Long.MAX_VALUE);
+        assertThatThrownBy(() -> new IssuanceThrottle(jwtProperties, clock))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testRetryAfterHeader() {
+        var exception = new TokenIssuanceThrottledException(Duration.ofMillis(1500));
+
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+    @Test
+    void testGenerateTokenThrottledBeforeSigning() {
+        JwtEncoder encoder = mock(JwtEncoder.class);
+        when(encoder.encode(any())).thenReturn(Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("test")
+                .build());
+        var jwtTokenService = new JwtTokenService(encoder, jwtProperties, clock, new IssuanceThrottle(jwtProperties, clock));
+
+        jwtTokenService.generateToken("test", ISSUER, null, List.of("USER"));
+        jwtTokenService.generateRefreshToken("test", ISSUER, null, null);
+
+        assertThatThrownBy(() -> jwtTokenService.generateToken("test", ISSUER, null, List.of("USER")))
+                .isInstanceOf(TokenIssuanceThrottledException.class);
+        assertThatThrownBy(() -> jwtTokenService.generateRefreshToken("test", ISSUER, null, null))
+                .isInstanceOf(TokenIssuanceThrottledException.class);
+
+        verify(encoder, times(2)).encode(any());
+    }
+}
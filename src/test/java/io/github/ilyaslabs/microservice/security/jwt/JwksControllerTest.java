@@ -0,0 +1,162 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for {@link JwksController}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Import(TestFixedClockConfiguration.class)
+@TestPropertySource(properties = "io.github.ilyaslabs.microservice.security.jwt.jwks.enabled=true")
+class JwksControllerTest extends BaseTest {
+
+    @Autowired
+    private RotatingJwkSource jwkSource;
+
+    @Autowired
+    private TestFixedClockConfiguration.MutableClock clock;
+
+    @Test
+    void testJwks() throws Exception {
+        var response = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=300"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andReturn()
+                .getResponse();
+
+        assertThat(response.getHeader("ETag")).startsWith("\"").endsWith("\"");
+        assertThat(response.getContentAsString())
+                .contains("\"keys\"")
+                .contains("\"kty\":\"RSA\"")
+                .doesNotContain("\"d\"");
+    }
+
+    @Test
+    void testJwksNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/.well-known/jwks.json")
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+    }
+
+    @Test
+    void testJwksRebuiltWhenKeysChange() throws Exception {
+        var response = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        String eTag = response.getHeader("ETag");
+        String previousKeyId = jwkSource.current().getKeyID();
+        assertThat(response.getContentAsString()).contains(previousKeyId);
+
+        RSAKey rotated = jwkSource.rotate();
+
+        // served from the cached snapshot until the max age passed
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(header().string("ETag", eTag));
+
+        clock.add(Duration.ofMinutes(6));
+        response = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        assertThat(response.getHeader("ETag")).isNotEqualTo(eTag);
+        assertThat(response.getContentAsString())
+                .contains(rotated.getKeyID())
+                .doesNotContain(previousKeyId);
+    }
+
+    @Test
+    void testJwksRebuiltWhenKeyIdChanges() throws Exception {
+        String eTag = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        // same key material, so the same thumbprint, under another key id
+        jwkSource.renameKey("renamed-1");
+
+        clock.add(Duration.ofMinutes(6));
+        var response = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        assertThat(response.getHeader("ETag")).isNotEqualTo(eTag);
+        assertThat(response.getContentAsString()).contains("\"kid\":\"renamed-1\"");
+    }
+
+    @TestConfiguration
+    static class RotatingJwkSourceConfiguration {
+
+        @Bean
+        @Primary
+        RotatingJwkSource rotatingJwkSource() throws JOSEException {
+            return new RotatingJwkSource();
+        }
+    }
+
+    /**
+     * JWKSource replacing its single key on demand.
+     */
+    static class RotatingJwkSource implements JWKSource<SecurityContext> {
+
+        private volatile RSAKey key;
+
+        RotatingJwkSource() throws JOSEException {
+            rotate();
+        }
+
+        RSAKey current() {
+            return key;
+        }
+
+        RSAKey rotate() throws JOSEException {
+            key = new RSAKeyGenerator(2048).keyIDFromThumbprint(true).generate();
+            return key;
+        }
+
+        void renameKey(String keyId) {
+            key = new RSAKey.Builder(key).keyID(keyId).build();
+        }
+
+        @Override
+        public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+            return jwkSelector.select(new JWKSet(key));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for {@link ScopeAuthorizationInterceptor}.
+ *
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+class ScopeAuthorizationInterceptorTest extends BaseTest {
+
+    @Test
+    void testRequireScope() throws Exception {
+        Jwt jwt = generateTestToken();
+
+        mockMvc.perform(get("/api/test/require-scope")
+                        .header("Authorization", "Bearer " + jwt.getTokenValue()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testRequireScopeMissing() throws Exception {
+        Jwt jwt = generateTestToken();
+
+        mockMvc.perform(get("/api/test/require-missing-scope")
+                        .header("Authorization", "Bearer " + jwt.getTokenValue()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testRequireAnyScope() throws Exception {
+        Jwt jwt = generateTestToken();
+
+        mockMvc.perform(get("/api/test/require-any-scope")
+                        .header("Authorization", "Bearer " + jwt.getTokenValue()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testRequireAnyScopeMissing() throws Exception {
+        Jwt jwt = jwtTokenService.generateToken(
+                "testSubject",
+                "https://ilyaslabs.github.io",
+                Map.of(),
+                List.of("ADMIN")
+        );
+
+        mockMvc.perform(get("/api/test/require-any-scope")
+                        .header("Authorization", "Bearer " + jwt.getTokenValue()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testControllerLevelRequirement() throws Exception {
+        Jwt admin = jwtTokenService.generateToken("testSubject", "https://ilyaslabs.github.io", Map.of(), List.of("ADMIN"));
+        Jwt user = jwtTokenService.generateToken("testSubject", "https://ilyaslabs.github.io", Map.of(), List.of("USER"));
+        Jwt adminAuditor = jwtTokenService.generateToken("testSubject", "https://ilyaslabs.github.io", Map.of(), List.of("ADMIN", "AUDITOR"));
+
+        mockMvc.perform(get("/api/test/scoped").header("Authorization", "Bearer " + admin.getTokenValue()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/test/scoped").header("Authorization", "Bearer " + user.getTokenValue()))
+                .andExpect(status().isForbidden());
+
+        // method level @RequireScope overrides the controller level one
+        mockMvc.perform(get("/api/test/scoped/overridden").header("Authorization", "Bearer " + user.getTokenValue()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/test/scoped/overridden").header("Authorization", "Bearer " + admin.getTokenValue()))
+                .andExpect(status().isForbidden());
+
+        // method level @RequireAnyScope combines with the controller level @RequireScope
+        mockMvc.perform(get("/api/test/scoped/combined").header("Authorization", "Bearer " + admin.getTokenValue()))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/test/scoped/combined").header("Authorization", "Bearer " + adminAuditor.getTokenValue()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testEmptyRequirementRejected() throws Exception {
+        var interceptor = new ScopeAuthorizationInterceptor();
+        var handler = new EmptyScopeController();
+
+        assertThatThrownBy(() -> interceptor.preHandle(
+                new MockHttpServletRequest(),
+                new MockHttpServletResponse(),
+                new HandlerMethod(handler, EmptyScopeController.class.getMethod("requireScope"))))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThatThrownBy(() -> interceptor.preHandle(
+                new MockHttpServletRequest(),
+                new MockHttpServletResponse(),
+                new HandlerMethod(handler, EmptyScopeController.class.getMethod("requireAnyScope"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    static class EmptyScopeController {
+
+        @RequireScope({})
+        public void requireScope() {
+        }
+
+        @RequireAnyScope({})
+        public void requireAnyScope() {
+        }
+    }
+}
@@ -47,4 +47,22 @@ class TestController {
         return ResponseEntity.ok().build();
     }
 
+    @RequireScope({"ADMIN", "USER"})
+    @GetMapping("/require-scope")
+    public ResponseEntity<Void> requireScope() {
+        return ResponseEntity.ok().build();
+    }
+
+    @RequireScope({"ADMIN", "SUPER_ADMIN"})
+    @GetMapping("/require-missing-scope")
+    public ResponseEntity<Void> requireMissingScope() {
+        return ResponseEntity.ok().build();
+    }
+
+    @RequireAnyScope({"AUDITOR", "user"})
+    @GetMapping("/require-any-scope")
+    public ResponseEntity<Void> requireAnyScope() {
+        return ResponseEntity.ok().build();
+    }
+
 }
@@ -0,0 +1,32 @@
+package io.github.ilyaslabs.microservice.security.jwt;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * @author Muhammad Ilyas (m.ilyas@live.com)
+ */
+@RestController
+@RequestMapping("/api/test/scoped")
+@RequireScope("ADMIN")
+class TestScopedController {
+
+    @GetMapping
+    public ResponseEntity<Void> inherited() {
+        return ResponseEntity.ok().build();
+    }
+
+    @RequireScope("USER")
+    @GetMapping("/overridden")
+    public ResponseEntity<Void> overridden() {
+        return ResponseEntity.ok().build();
+    }
+
+    @RequireAnyScope("AUDITOR")
+    @GetMapping("/combined")
+    public ResponseEntity<Void> combined() {
+        return ResponseEntity.ok().build();
+    }
+}